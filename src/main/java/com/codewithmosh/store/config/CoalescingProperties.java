@@ -0,0 +1,27 @@
+package com.codewithmosh.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 请求合并（single-flight）的配置，对应 application.yaml 中的 store.coalescing
+ *
+ * 合并键 = 请求路径 + keyParams 中列出的查询参数 + keyHeaders 中列出的请求头。
+ * keyParams 为空时，所有查询参数都参与合并键。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "store.coalescing")
+public class CoalescingProperties {
+    private boolean enabled = true;
+    //只对这些GET路径做合并
+    private List<String> paths = new ArrayList<>(List.of("/products"));
+    private List<String> keyParams = new ArrayList<>();
+    private List<String> keyHeaders = new ArrayList<>();
+    //跟随者等待领头请求的最长时间，超时后自己查询
+    private long waitTimeoutMs = 5000;
+}
@@ -0,0 +1,30 @@
+package com.codewithmosh.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 组提交（group commit）写入管道的配置，对应 application.yaml 中的 store.group-commit
+ *
+ * 开启后，POST /products 和 POST /users 的插入先进入有界队列，
+ * 由后台线程每 batchSize 条或每 maxDelayMs 毫秒合并成一个事务提交。
+ *
+ * 每个调用方都要等到自己的批次提交才返回，所以队列里的写入数不会超过请求线程数
+ * （server.tomcat.threads.max，默认200）。queueCapacity 要小于线程数背压才会生效，
+ * 剩下的线程留给读请求；batchSize 超过线程数也没有意义。
+ * 开启时必须设置 spring.jpa.open-in-view=false。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "store.group-commit")
+public class GroupCommitProperties {
+    private boolean enabled = false;
+    private int queueCapacity = 100;
+    private int batchSize = 100;
+    private long maxDelayMs = 5;
+    //队列满时最多等待多久，超时返回503（背压）
+    private long offerTimeoutMs = 50;
+    //等待所在批次提交的最长时间
+    private long responseTimeoutMs = 10000;
+}
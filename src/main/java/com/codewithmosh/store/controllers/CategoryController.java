@@ -0,0 +1,67 @@
+package com.codewithmosh.store.controllers;
+
+import com.codewithmosh.store.dtos.RepriceRequest;
+import com.codewithmosh.store.mappers.CategoryMapper;
+import com.codewithmosh.store.repositories.CategoryRepository;
+import com.codewithmosh.store.repositories.ProductRepository;
+import com.codewithmosh.store.services.CategoryRepricingService;
+import com.codewithmosh.store.services.CategoryStatsCache;
+import jakarta.validation.Valid;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.StreamSupport;
+
+@RestController
+@RequestMapping("/categories")
+@AllArgsConstructor
+public class CategoryController {
+    private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
+    private final CategoryMapper categoryMapper;
+    private final CategoryStatsCache categoryStatsCache;
+    private final CategoryRepricingService categoryRepricingService;
+
+    //withStats=true时返回内存快照中的统计数据（产品数量、最低价、最高价）
+    @GetMapping
+    public List<?> getAllCategories(
+            @RequestParam(name = "withStats", required = false, defaultValue = "false") boolean withStats) {
+        if (withStats) {
+            return categoryStatsCache.get();
+        }
+        return StreamSupport.stream(categoryRepository.findAll().spliterator(), false)
+                .map(categoryMapper::toDto)
+                .toList();
+    }
+
+    //整个类别调价：一条UPDATE语句
+    @PostMapping("/{id}/reprice")
+    public ResponseEntity<?> reprice(@PathVariable Byte id, @Valid @RequestBody RepriceRequest request) {
+        if (!categoryRepository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        var updated = categoryRepricingService.reprice(id, request); //价格越界时抛出InvalidRepriceException（400）
+        categoryStatsCache.invalidate();
+        return ResponseEntity.ok(Map.of("updated", updated));
+    }
+
+    //按类别（可选价格区间）批量删除：一条DELETE语句
+    @DeleteMapping("/{id}/products")
+    public ResponseEntity<?> deleteProducts(@PathVariable Byte id,
+                                            @RequestParam(required = false) BigDecimal minPrice,
+                                            @RequestParam(required = false) BigDecimal maxPrice) {
+        if (!categoryRepository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            return ResponseEntity.badRequest().body(Map.of("minPrice", "minPrice cannot be greater than maxPrice"));
+        }
+        var deleted = productRepository.deleteByCategoryAndPriceRange(id, minPrice, maxPrice);
+        categoryStatsCache.invalidate();
+        return ResponseEntity.ok(Map.of("deleted", deleted));
+    }
+}
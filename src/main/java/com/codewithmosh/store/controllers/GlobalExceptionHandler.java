@@ -1,5 +1,10 @@
 package com.codewithmosh.store.controllers;
 
+import com.codewithmosh.store.services.GroupCommitOutcomeUnknownException;
+import com.codewithmosh.store.services.GroupCommitRejectedException;
+import com.codewithmosh.store.services.InvalidRepriceException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -19,4 +24,25 @@ public class GlobalExceptionHandler {
             errors.put(error.getField(), error.getDefaultMessage());});
         return ResponseEntity.badRequest().body(errors);
     }
+
+    //调价会让价格变成负数或超出DECIMAL(10,2)：400，整个事务已回滚
+    @ExceptionHandler(InvalidRepriceException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidReprice(InvalidRepriceException ex){
+        return ResponseEntity.badRequest().body(Map.of("amount", ex.getMessage()));
+    }
+
+    //写入没有执行（队列满等）：503 + Retry-After，让客户端稍后重试
+    @ExceptionHandler(GroupCommitRejectedException.class)
+    public ResponseEntity<Map<String, String>> handleGroupCommitRejected(GroupCommitRejectedException ex){
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", ex.getMessage()));
+    }
+
+    //写入结果未知：504，不带Retry-After，直接重试可能产生重复数据
+    @ExceptionHandler(GroupCommitOutcomeUnknownException.class)
+    public ResponseEntity<Map<String, String>> handleGroupCommitOutcomeUnknown(GroupCommitOutcomeUnknownException ex){
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                .body(Map.of("error", ex.getMessage()));
+    }
 }
@@ -1,14 +1,21 @@
 package com.codewithmosh.store.controllers;
 
+import com.codewithmosh.store.dtos.PatchProductRequest;
 import com.codewithmosh.store.dtos.ProductDto;
+import com.codewithmosh.store.entities.Category;
 import com.codewithmosh.store.mappers.ProductMapper;
 import com.codewithmosh.store.repositories.CategoryRepository;
 import com.codewithmosh.store.repositories.ProductRepository;
+import com.codewithmosh.store.services.CategoryStatsCache;
+import com.codewithmosh.store.services.GroupCommitWriter;
+import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -19,6 +26,8 @@ public class ProductController {
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
     private final CategoryRepository categoryRepository;
+    private final CategoryStatsCache categoryStatsCache;
+    private final GroupCommitWriter groupCommitWriter;
 
     @GetMapping
     public List<ProductDto> getAllProducts(
@@ -45,10 +54,13 @@ public class ProductController {
         }
         var product = productMapper.toEntity(productDto); //把Dto转成实体
         product.setCategory(category); //设置类别（原本为Dto中的空类别）
-        productRepository.save(product); //保存到数据库
-        productDto.setId(product.getId()); //把id同步到Dto中
+        //保存到数据库；开启组提交时和其他请求合并成一个事务提交
+        var saved = groupCommitWriter.isEnabled() ? groupCommitWriter.write(product) : productRepository.save(product);
+        categoryStatsCache.invalidate(); //类别统计需要重新计算
+        productDto.setId(saved.getId()); //把id同步到Dto中
+        productDto.setVersion(saved.getVersion());
         // 返回201 Created
-        var uri = uriBuilder.path("/products/{id}").buildAndExpand(product.getId()).toUri();
+        var uri = uriBuilder.path("/products/{id}").buildAndExpand(saved.getId()).toUri();
         // 201 Created + Location头 + 数据
         return ResponseEntity.created(uri).body(productDto);
 
@@ -61,11 +73,43 @@ public class ProductController {
         }
 
         productMapper.update(productDto, product);//用Dto更新product字段
-        productRepository.save(product);
-        productDto.setId(product.getId());
+        var saved = productRepository.save(product); //product是脱管实体，save会merge并返回新的实例
+        categoryStatsCache.invalidate();
+        productDto.setId(saved.getId());
+        productDto.setVersion(saved.getVersion());
 
         return ResponseEntity.ok(productDto);
     }
+    //只更新传入的字段：一条 UPDATE ... WHERE id=? AND version=?，不先查询
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patchProduct(@PathVariable Long id, @Valid @RequestBody PatchProductRequest request){
+        var changes = new HashMap<String, Object>();
+        if (request.getName() != null) changes.put("name", request.getName());
+        if (request.getPrice() != null) changes.put("price", request.getPrice());
+        if (request.getDescription() != null) changes.put("description", request.getDescription());
+        if (request.getCategoryId() != null){
+            if (!categoryRepository.existsById(request.getCategoryId())){
+                return ResponseEntity.badRequest().body(Map.of("categoryId", "Category not found"));
+            }
+            changes.put("category", new Category(request.getCategoryId()));
+        }
+        if (changes.isEmpty()){
+            //只传version会把version加1但什么都没改，让其他客户端的version失效
+            return ResponseEntity.badRequest().body(Map.of("version", "No fields to update"));
+        }
+
+        var updated = productRepository.updateVersioned(id, request.getVersion(), changes);
+        if (updated == 0){
+            if (!productRepository.existsById(id)){
+                return ResponseEntity.notFound().build();
+            }
+            // 409 Conflict: version已被其他请求修改
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("version", "Product was modified by another request"));
+        }
+        categoryStatsCache.invalidate();
+        return ResponseEntity.ok(Map.of("id", id, "version", request.getVersion() + 1));
+    }
     @DeleteMapping("/{id}")
     public ResponseEntity<ProductDto> deleteProduct(@PathVariable Long id){
         var product = productRepository.findById(id).orElse(null);
@@ -73,6 +117,7 @@ public class ProductController {
             return ResponseEntity.notFound().build();
         }
         productRepository.delete(product);
+        categoryStatsCache.invalidate();
         return ResponseEntity.noContent().build();
     }
 }
@@ -0,0 +1,28 @@
+package com.codewithmosh.store.controllers;
+
+import com.codewithmosh.store.filters.RequestCoalescingFilter;
+import com.codewithmosh.store.services.GroupCommitWriter;
+import lombok.AllArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/stats")
+@AllArgsConstructor
+public class StatsController {
+    private final RequestCoalescingFilter requestCoalescingFilter;
+    private final GroupCommitWriter groupCommitWriter;
+
+    @GetMapping("/coalescing")
+    public Map<String, Object> coalescing() {
+        return requestCoalescingFilter.getStats();
+    }
+
+    @GetMapping("/group-commit")
+    public Map<String, Object> groupCommit() {
+        return groupCommitWriter.getStats();
+    }
+}
@@ -1,11 +1,13 @@
 package com.codewithmosh.store.controllers;
 
 import com.codewithmosh.store.dtos.ChangePasswordRequest;
+import com.codewithmosh.store.dtos.PatchUserRequest;
 import com.codewithmosh.store.dtos.RegisterUserRequest;
 import com.codewithmosh.store.dtos.UpdateUserRequest;
 import com.codewithmosh.store.dtos.UserDto;
 import com.codewithmosh.store.mappers.UserMapper;
 import com.codewithmosh.store.repositories.UserRepository;
+import com.codewithmosh.store.services.GroupCommitWriter;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -36,6 +38,7 @@ public class UserController {
 
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final GroupCommitWriter groupCommitWriter;
 
     /**
      * 【学习笔记】GET请求处理 - 获取用户列表
@@ -121,9 +124,10 @@ public class UserController {
             );
         }
         var user = userMapper.toEntity(request); // Request → Entity (数据库操作需要)
-        userRepository.save(user); // 保存到数据库
+        // 保存到数据库；开启组提交时和其他请求合并成一个事务提交
+        var saved = groupCommitWriter.isEnabled() ? groupCommitWriter.write(user) : userRepository.save(user);
 
-        var userDto = userMapper.toDto(user); // Entity → DTO (返回给客户端)
+        var userDto = userMapper.toDto(saved); // Entity → DTO (返回给客户端)
         var uri = uriBuilder.path("/users/{id}") // 构建新资源的URL
                 .buildAndExpand(userDto.getId()) // 填入用户ID
                 .toUri();
@@ -151,8 +155,51 @@ public class UserController {
             return ResponseEntity.notFound().build(); // 404 Not Found
         }
         userMapper.update(request, user); // 使用Mapper更新Entity字段
-        userRepository.save(user); // 保存更新后的数据
-        return ResponseEntity.ok(userMapper.toDto(user)); // 200 OK + 更新后的数据
+        var saved = userRepository.save(user); // user是脱管实体，save会merge并返回带新version的实例
+        return ResponseEntity.ok(userMapper.toDto(saved)); // 200 OK + 更新后的数据
+    }
+
+    /**
+     * 【学习笔记】PATCH请求处理 - 部分更新用户 + 乐观锁
+     *
+     * 核心知识点：
+     * 1. @PatchMapping: 只更新请求中给出的字段，未给出的字段保持不变
+     * 2. 不先findById：直接执行 UPDATE ... WHERE id=? AND version=?
+     * 3. 乐观锁：客户端带上读取时的version，别人先改过则影响行数为0
+     * 4. 409 CONFLICT: 版本冲突时返回，客户端需要重新读取后再提交
+     *
+     * API设计：
+     * - PATCH /users/123 {"name": "...", "version": 3}
+     * - 成功：200 OK + 新的version
+     * - 用户不存在：404 Not Found
+     * - 没有要更新的字段：400 Bad Request
+     * - 版本冲突：409 Conflict
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patchUser(@PathVariable Long id, @Valid @RequestBody PatchUserRequest request){
+        var changes = new HashMap<String, Object>();
+        if (request.getName() != null) changes.put("name", request.getName());
+        if (request.getEmail() != null){
+            if (userRepository.existsByEmailAndIdNot(request.getEmail(), id)){
+                return ResponseEntity.badRequest().body(
+                        Map.of("email","Email already exists")
+                );
+            }
+            changes.put("email", request.getEmail());
+        }
+        if (changes.isEmpty()){
+            return ResponseEntity.badRequest().body(Map.of("version", "No fields to update")); // 400 只传了version
+        }
+
+        var updated = userRepository.updateVersioned(id, request.getVersion(), changes);
+        if (updated == 0){
+            if (!userRepository.existsById(id)){
+                return ResponseEntity.notFound().build(); // 404 Not Found
+            }
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("version", "User was modified by another request")); // 409 Conflict
+        }
+        return ResponseEntity.ok(Map.of("id", id, "version", request.getVersion() + 1)); // 200 OK + 新version
     }
 
     /**
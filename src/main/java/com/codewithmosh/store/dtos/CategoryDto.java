@@ -0,0 +1,9 @@
+package com.codewithmosh.store.dtos;
+
+import lombok.Data;
+
+@Data
+public class CategoryDto {
+    private Byte id;
+    private String name;
+}
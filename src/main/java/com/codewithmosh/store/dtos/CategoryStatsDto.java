@@ -0,0 +1,17 @@
+package com.codewithmosh.store.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+//由JPQL的 select new 直接构造，字段顺序要和构造函数一致
+@AllArgsConstructor
+@Getter
+public class CategoryStatsDto {
+    private Byte id;
+    private String name;
+    private Long productCount;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+}
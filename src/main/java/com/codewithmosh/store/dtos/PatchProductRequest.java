@@ -0,0 +1,21 @@
+package com.codewithmosh.store.dtos;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+//PATCH只更新非null字段，version用于乐观锁；字段可以不传，但传了就不能是空白
+@Data
+public class PatchProductRequest {
+    @Pattern(regexp = "(?s).*\\S.*", message = "Name cannot be blank")
+    private String name;
+    @DecimalMin(value = "0", message = "Price cannot be negative")
+    private BigDecimal price;
+    private String description;
+    private Byte categoryId;
+    @NotNull(message = "Version is required")
+    private Long version;
+}
@@ -0,0 +1,18 @@
+package com.codewithmosh.store.dtos;
+
+import com.codewithmosh.store.Validation.Lowercase;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+@Data
+public class PatchUserRequest {
+    @Pattern(regexp = "(?s).*\\S.*", message = "Name cannot be blank")
+    private String name;
+    @Email(message = "Email is not valid")
+    @Lowercase
+    private String email;
+    @NotNull(message = "Version is required")
+    private Long version;
+}
@@ -10,4 +10,5 @@ public class ProductDto {
     private BigDecimal price;
     private String description;
     private Byte categoryId;
+    private Long version;
 }
@@ -0,0 +1,19 @@
+package com.codewithmosh.store.dtos;
+
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class RepriceRequest {
+    public enum Type { PERCENTAGE, ABSOLUTE }
+
+    @NotNull(message = "Type is required")
+    private Type type;
+    //PERCENTAGE: 10表示涨价10%，-10表示降价10%；ABSOLUTE: 每个产品加上（或减去）的金额
+    @NotNull(message = "Amount is required")
+    @Digits(integer = 8, fraction = 2, message = "Amount must have at most 8 integer digits and 2 decimals")
+    private BigDecimal amount;
+}
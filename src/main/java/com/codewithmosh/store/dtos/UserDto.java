@@ -9,4 +9,5 @@ public class UserDto {
     private Long id;
     private String name;
     private String email;
+    private Long version;
 }
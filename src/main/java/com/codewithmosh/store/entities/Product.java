@@ -27,7 +27,11 @@ public class Product {
     @Column(name = "price")
     private BigDecimal price;
 
-    @ManyToOne(cascade = CascadeType.PERSIST)
+    @Version //乐观锁：每次更新version+1，防止并发修改丢失
+    @Column(name = "version")
+    private Long version;
+
+    @ManyToOne //类别必须已存在；不级联persist，保存产品时类别可以是脱管（detached）实体
     @JoinColumn(name = "category_id")
     private Category category;
 }
\ No newline at end of file
@@ -0,0 +1,160 @@
+package com.codewithmosh.store.filters;
+
+import com.codewithmosh.store.config.CoalescingProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 合并同时到达的相同GET请求（single-flight）
+ *
+ * 第一个请求（领头）正常执行查询和序列化，并把响应体缓存下来；
+ * 在它完成之前到达的相同请求（跟随者）直接复用这份响应，不再访问数据库。
+ * 领头请求完成后立即移除，所以不会产生缓存过期的问题。
+ *
+ * 跟随者拿到领头请求的状态码、Content-Type、响应体和其他响应头；
+ * Set-Cookie 不会共享，避免把一个客户端的会话发给其他客户端。
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestCoalescingFilter extends OncePerRequestFilter {
+    //这些响应头不复制给跟随者：长度和类型单独处理，Cookie属于单个客户端
+    private static final Set<String> UNSHARED_HEADERS = Set.of(
+            HttpHeaders.CONTENT_LENGTH.toLowerCase(),
+            HttpHeaders.CONTENT_TYPE.toLowerCase(),
+            HttpHeaders.SET_COOKIE.toLowerCase());
+
+    private final CoalescingProperties properties;
+    private final Map<String, CompletableFuture<SharedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong leaders = new AtomicLong();
+    private final AtomicLong joined = new AtomicLong();    //加入了进行中的相同请求
+    private final AtomicLong coalesced = new AtomicLong(); //真正复用了领头请求的响应
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled()
+                || !"GET".equals(request.getMethod())
+                || !properties.getPaths().contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        var key = keyOf(request);
+        var future = new CompletableFuture<SharedResponse>();
+        var existing = inFlight.putIfAbsent(key, future);
+
+        if (existing != null) {
+            joined.incrementAndGet();
+            var shared = await(existing);
+            if (shared != null) {
+                coalesced.incrementAndGet();
+                shared.writeTo(response);
+                return;
+            }
+            //领头请求失败或超时，自己执行
+            fallbacks.incrementAndGet();
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        leaders.incrementAndGet();
+        var wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, wrapper);
+            var status = wrapper.getStatus();
+            if (status >= 200 && status < 300) {
+                future.complete(new SharedResponse(status, wrapper.getContentType(), sharedHeaders(wrapper),
+                        wrapper.getContentAsByteArray()));
+            } else {
+                future.complete(null); //只共享成功的响应
+            }
+            wrapper.copyBodyToResponse();
+        } catch (IOException | ServletException | RuntimeException ex) {
+            future.complete(null);
+            throw ex;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private static Map<String, List<String>> sharedHeaders(HttpServletResponse response) {
+        var headers = new LinkedHashMap<String, List<String>>();
+        for (var name : response.getHeaderNames()) {
+            if (!UNSHARED_HEADERS.contains(name.toLowerCase())) {
+                headers.put(name, List.copyOf(response.getHeaders(name)));
+            }
+        }
+        return headers;
+    }
+
+    private SharedResponse await(CompletableFuture<SharedResponse> future) {
+        try {
+            return future.get(properties.getWaitTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+
+    private String keyOf(HttpServletRequest request) {
+        var key = new StringBuilder(request.getRequestURI());
+        var params = new TreeMap<String, String[]>(request.getParameterMap());
+        if (!properties.getKeyParams().isEmpty()) {
+            params.keySet().retainAll(properties.getKeyParams());
+        }
+        params.forEach((name, values) -> key.append('&').append(name).append('=').append(String.join(",", values)));
+        for (var header : properties.getKeyHeaders()) {
+            key.append('|').append(header).append('=').append(request.getHeader(header));
+        }
+        return key.toString();
+    }
+
+    public Map<String, Object> getStats() {
+        var leaderCount = leaders.get();
+        var coalescedCount = coalesced.get();
+        var total = leaderCount + joined.get();
+        //回退后自己查询的请求不算合并
+        return Map.of(
+                "leaders", leaderCount,
+                "joined", joined.get(),
+                "coalesced", coalescedCount,
+                "fallbacks", fallbacks.get(),
+                "inFlight", inFlight.size(),
+                "coalescingRatio", total == 0 ? 0.0 : (double) coalescedCount / total
+        );
+    }
+
+    private record SharedResponse(int status, String contentType, Map<String, List<String>> headers, byte[] body) {
+        void writeTo(HttpServletResponse response) throws IOException {
+            response.setStatus(status);
+            headers.forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+            if (contentType != null) {
+                response.setContentType(contentType);
+            }
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+}
@@ -11,7 +11,9 @@ import org.mapstruct.MappingTarget;
 public interface ProductMapper {
     @Mapping(target="categoryId", source="category.id")
     ProductDto toDto(Product product);
+    @Mapping(target = "version", ignore = true) //version由Hibernate维护
     Product toEntity(ProductDto productDto);
     @Mapping(target = "id", ignore = true) //忽略更新id
+    @Mapping(target = "version", ignore = true)
     void update(ProductDto productDto, @MappingTarget Product product);
 }
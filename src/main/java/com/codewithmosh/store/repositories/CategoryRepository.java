@@ -1,7 +1,17 @@
 package com.codewithmosh.store.repositories;
 
+import com.codewithmosh.store.dtos.CategoryStatsDto;
 import com.codewithmosh.store.entities.Category;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
+import java.util.List;
+
 public interface CategoryRepository extends CrudRepository<Category, Byte> {
-}
\ No newline at end of file
+    //一条GROUP BY聚合查询，不加载Category.products集合
+    @Query("select new com.codewithmosh.store.dtos.CategoryStatsDto(" +
+            "c.id, c.name, count(p), min(p.price), max(p.price)) " +
+            "from Category c left join c.products p " +
+            "group by c.id, c.name order by c.id")
+    List<CategoryStatsDto> findAllWithStats();
+}
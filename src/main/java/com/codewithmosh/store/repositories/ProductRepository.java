@@ -4,11 +4,15 @@ import com.codewithmosh.store.entities.Product;
 import jakarta.persistence.Entity;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.List;
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, VersionedUpdateRepository<Product> {
     @EntityGraph(attributePaths = {"category"}) //性能优化：预先加载关联的属性，避免N+1问题
         // 告诉spring data JPA，在查询产品时，请将其关联的类别一起查询
     List<Product> findByCategoryId(Byte categoryId);
@@ -16,4 +20,34 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @EntityGraph(attributePaths = {"category"})
     @Query("select p from Product p")
     List<Product>findAllWithCategory();
-}
\ No newline at end of file
+
+    //批量操作：一条UPDATE/DELETE语句完成，不再逐个findById + save
+    //clearAutomatically清空持久化上下文，避免读到旧的实体
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.price = p.price * :factor, p.version = p.version + 1 where p.category.id = :categoryId")
+    int multiplyPriceByCategory(@Param("categoryId") Byte categoryId, @Param("factor") BigDecimal factor);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.price = p.price + :delta, p.version = p.version + 1 " +
+            "where p.category.id = :categoryId")
+    int addToPriceByCategory(@Param("categoryId") Byte categoryId, @Param("delta") BigDecimal delta);
+
+    //调价前锁住类别下的所有产品行（SELECT ... FOR UPDATE），必须在事务中调用
+    @Query(value = "select id from products where category_id = :categoryId for update", nativeQuery = true)
+    List<Long> lockByCategoryId(@Param("categoryId") Byte categoryId);
+
+    //调价前检查：是否有产品的价格会变成负数或超出上限
+    boolean existsByCategoryIdAndPriceLessThan(Byte categoryId, BigDecimal price);
+    boolean existsByCategoryIdAndPriceGreaterThan(Byte categoryId, BigDecimal price);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Product p where p.category.id = :categoryId " +
+            "and (:minPrice is null or p.price >= :minPrice) " +
+            "and (:maxPrice is null or p.price <= :maxPrice)")
+    int deleteByCategoryAndPriceRange(@Param("categoryId") Byte categoryId,
+                                      @Param("minPrice") BigDecimal minPrice,
+                                      @Param("maxPrice") BigDecimal maxPrice);
+}
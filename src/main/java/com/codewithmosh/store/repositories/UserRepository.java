@@ -6,6 +6,7 @@ import org.springframework.data.repository.CrudRepository;
 
 import java.util.Optional;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, VersionedUpdateRepository<User> {
     boolean existsByEmail(String email);
+    boolean existsByEmailAndIdNot(String email, Long id);
 }
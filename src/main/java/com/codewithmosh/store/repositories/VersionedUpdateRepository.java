@@ -0,0 +1,15 @@
+package com.codewithmosh.store.repositories;
+
+import java.util.Map;
+
+//自定义repository片段，实现类为VersionedUpdateRepositoryImpl；T绑定为所在repository的实体类型
+public interface VersionedUpdateRepository<T> {
+    /**
+     * 只更新changes中给出的字段（dynamic update），不先查询实体：
+     * UPDATE ... SET 字段..., version = version + 1 WHERE id = ? AND version = ?
+     *
+     * @return 受影响的行数，0表示记录不存在或version已被别人修改
+     * @throws IllegalArgumentException changes为空，或有实体不存在的字段，或者是id/version
+     */
+    int updateVersioned(Long id, Long expectedVersion, Map<String, Object> changes);
+}
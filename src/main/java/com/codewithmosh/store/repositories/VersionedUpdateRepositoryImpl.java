@@ -0,0 +1,55 @@
+package com.codewithmosh.store.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.data.repository.core.RepositoryMethodContext;
+import org.springframework.data.repository.core.support.RepositoryMetadataAccess;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+//实现RepositoryMetadataAccess后，可以通过RepositoryMethodContext拿到调用方repository的实体类型
+public class VersionedUpdateRepositoryImpl<T> implements VersionedUpdateRepository<T>, RepositoryMetadataAccess {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int updateVersioned(Long id, Long expectedVersion, Map<String, Object> changes) {
+        var entityType = domainType();
+        checkAttributes(entityType, changes);
+
+        var cb = entityManager.getCriteriaBuilder();
+        var update = cb.createCriteriaUpdate(entityType);
+        var root = update.from(entityType);
+
+        changes.forEach((attribute, value) -> update.set(root.get(attribute), value));
+        update.set(root.<Long>get("version"), cb.sum(root.<Long>get("version"), 1L));
+        update.where(
+                cb.equal(root.get("id"), id),
+                cb.equal(root.get("version"), expectedVersion));
+
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Class<T> domainType() {
+        return (Class<T>) RepositoryMethodContext.getContext().getMetadata().getDomainType();
+    }
+
+    //字段名是字符串，拼错时在这里给出明确的错误，而不是Hibernate内部的异常
+    private void checkAttributes(Class<T> entityType, Map<String, Object> changes) {
+        if (changes.isEmpty()) {
+            throw new IllegalArgumentException("No attributes to update for " + entityType.getSimpleName());
+        }
+        var entity = entityManager.getMetamodel().entity(entityType);
+        for (var attribute : changes.keySet()) {
+            var patchable = entity.getSingularAttributes().stream()
+                    .anyMatch(a -> a.getName().equals(attribute) && !a.isId() && !a.isVersion());
+            if (!patchable) {
+                throw new IllegalArgumentException(
+                        "Cannot patch attribute '" + attribute + "' of " + entityType.getSimpleName());
+            }
+        }
+    }
+}
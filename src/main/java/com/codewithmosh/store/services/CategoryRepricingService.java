@@ -0,0 +1,54 @@
+package com.codewithmosh.store.services;
+
+import com.codewithmosh.store.dtos.RepriceRequest;
+import com.codewithmosh.store.repositories.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 整个类别调价：检查和UPDATE在同一个事务中执行
+ *
+ * 先用 SELECT ... FOR UPDATE 锁住类别下的产品，检查期间其他请求不能修改价格，
+ * 检查通过后再执行一条UPDATE；检查不通过抛出InvalidRepriceException，事务回滚，没有任何行被修改。
+ */
+@Service
+@RequiredArgsConstructor
+public class CategoryRepricingService {
+    //products.price 是 DECIMAL(10,2)
+    private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+
+    private final ProductRepository productRepository;
+
+    @Transactional
+    public int reprice(Byte categoryId, RepriceRequest request) {
+        productRepository.lockByCategoryId(categoryId);
+        var amount = request.getAmount();
+
+        if (request.getType() == RepriceRequest.Type.PERCENTAGE) {
+            var factor = BigDecimal.ONE.add(amount.movePointLeft(2));
+            if (factor.signum() < 0) {
+                throw new InvalidRepriceException("Percentage cannot be below -100");
+            }
+            //price * factor <= MAX_PRICE 即 price <= MAX_PRICE / factor（向下取整保证不越界）
+            if (factor.compareTo(BigDecimal.ONE) > 0 && productRepository.existsByCategoryIdAndPriceGreaterThan(
+                    categoryId, MAX_PRICE.divide(factor, 2, RoundingMode.DOWN))) {
+                throw new InvalidRepriceException("Amount would make some prices exceed " + MAX_PRICE);
+            }
+            return productRepository.multiplyPriceByCategory(categoryId, factor);
+        }
+
+        //price + amount < 0 即 price < -amount，有这样的产品就拒绝，不把价格悄悄改成0
+        if (amount.signum() < 0 && productRepository.existsByCategoryIdAndPriceLessThan(categoryId, amount.negate())) {
+            throw new InvalidRepriceException("Amount would make some prices negative");
+        }
+        if (amount.signum() > 0 && productRepository.existsByCategoryIdAndPriceGreaterThan(
+                categoryId, MAX_PRICE.subtract(amount))) {
+            throw new InvalidRepriceException("Amount would make some prices exceed " + MAX_PRICE);
+        }
+        return productRepository.addToPriceByCategory(categoryId, amount);
+    }
+}
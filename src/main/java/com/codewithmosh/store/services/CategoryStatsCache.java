@@ -0,0 +1,58 @@
+package com.codewithmosh.store.services;
+
+import com.codewithmosh.store.dtos.CategoryStatsDto;
+import com.codewithmosh.store.repositories.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 类别统计（产品数量、最低价、最高价）的内存快照
+ *
+ * 写产品之后调用invalidate()，下一次读取时重新执行聚合查询。
+ * 快照记录加载时的generation，如果加载期间有写入，generation已变化，下次读取会再刷新。
+ * 同一时间只有一个线程执行聚合查询：其他线程有旧快照就先返回旧快照，没有（首次加载）就等待。
+ */
+@Service
+@RequiredArgsConstructor
+public class CategoryStatsCache {
+    private final CategoryRepository categoryRepository;
+    private final AtomicLong generation = new AtomicLong();
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile Snapshot snapshot;
+
+    public List<CategoryStatsDto> get() {
+        var current = snapshot;
+        if (current != null && current.generation() == generation.get()) {
+            return current.stats();
+        }
+        if (current == null) {
+            refreshLock.lock();
+        } else if (!refreshLock.tryLock()) {
+            return current.stats(); //别的线程正在刷新，先用旧快照
+        }
+        try {
+            //拿到锁之后再检查一次，可能刚被别的线程刷新过
+            current = snapshot;
+            var gen = generation.get();
+            if (current != null && current.generation() == gen) {
+                return current.stats();
+            }
+            var stats = List.copyOf(categoryRepository.findAllWithStats());
+            snapshot = new Snapshot(gen, stats);
+            return stats;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    private record Snapshot(long generation, List<CategoryStatsDto> stats) {
+    }
+}
@@ -0,0 +1,8 @@
+package com.codewithmosh.store.services;
+
+//写入已经交给写线程，但没有等到提交结果：可能已经写入，客户端不应直接重试
+public class GroupCommitOutcomeUnknownException extends RuntimeException {
+    public GroupCommitOutcomeUnknownException(String message) {
+        super(message);
+    }
+}
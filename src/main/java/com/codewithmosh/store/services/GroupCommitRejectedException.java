@@ -0,0 +1,8 @@
+package com.codewithmosh.store.services;
+
+//写入没有进入（或已移出）队列，没有任何数据写入，客户端可以安全重试
+public class GroupCommitRejectedException extends RuntimeException {
+    public GroupCommitRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,232 @@
+package com.codewithmosh.store.services;
+
+import com.codewithmosh.store.config.GroupCommitProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 组提交写入管道：把高频的单条插入合并成多行事务，减少MySQL的提交（fsync）次数
+ *
+ * 调用方线程把实体放入有界队列后等待；后台写线程每凑满batchSize条或等待maxDelayMs毫秒，
+ * 就在一个事务里写入这一批，提交后再唤醒这一批的所有调用方。
+ * 队列满时调用方最多等待offerTimeoutMs，仍然放不进去则抛出GroupCommitRejectedException（503）。
+ *
+ * 调用方等待期间不能占用数据库连接，否则并发请求数达到连接池大小时写线程拿不到连接，
+ * 所有请求一起超时。所以开启组提交时要求 spring.jpa.open-in-view=false，否则启动失败。
+ */
+@Service
+@RequiredArgsConstructor
+public class GroupCommitWriter {
+    private final GroupCommitProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final Environment environment;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private BlockingQueue<PendingWrite<?>> queue;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong items = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalBatchNanos = new AtomicLong();
+    private final AtomicLong maxBatchNanos = new AtomicLong();
+    private volatile long lastBatchNanos;
+    private volatile int lastBatchSize;
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (environment.getProperty("spring.jpa.open-in-view", Boolean.class, true)) {
+            throw new IllegalStateException(
+                    "store.group-commit.enabled requires spring.jpa.open-in-view=false, " +
+                    "otherwise waiting requests hold pool connections the writer needs");
+        }
+        queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        running = true;
+        writerThread = Thread.ofPlatform()
+                .name("group-commit-writer")
+                .daemon()
+                .start(this::drainLoop);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writerThread == null) {
+            return;
+        }
+        running = false; //写线程把队列中剩余的写入处理完再退出
+        writerThread.join(properties.getResponseTimeoutMs());
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    /**
+     * 放入队列并等待所在批次提交，返回已写入的实体（带生成的id）
+     *
+     * @throws GroupCommitRejectedException 没有写入，可以重试（队列满，或超时前还没被写线程取走）
+     * @throws GroupCommitOutcomeUnknownException 已经被写线程取走但没等到提交结果
+     */
+    public <T> T write(T entity) {
+        if (!running) {
+            throw new GroupCommitRejectedException("Group commit writer is not running");
+        }
+        var pending = new PendingWrite<T>(entity, new CompletableFuture<>());
+        try {
+            if (!queue.offer(pending, properties.getOfferTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                rejected.incrementAndGet();
+                throw new GroupCommitRejectedException("Write queue is full, please retry later");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new GroupCommitRejectedException("Interrupted before the write was queued");
+        }
+        try {
+            return pending.future().get(properties.getResponseTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw abandon(pending);
+        } catch (TimeoutException ex) {
+            throw abandon(pending);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    //还在队列里就移除，保证不会写入；已经被取走则结果未知
+    private RuntimeException abandon(PendingWrite<?> pending) {
+        if (queue.remove(pending)) {
+            return new GroupCommitRejectedException("Timed out waiting in the write queue, nothing was written");
+        }
+        return new GroupCommitOutcomeUnknownException("Timed out waiting for the write to commit, it may still succeed");
+    }
+
+    private void drainLoop() {
+        var batch = new ArrayList<PendingWrite<?>>(properties.getBatchSize());
+        try {
+            while (running || !queue.isEmpty()) {
+                var first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                //凑满batchSize条，或等到maxDelayMs，哪个先到就提交
+                var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getMaxDelayMs());
+                while (batch.size() < properties.getBatchSize()) {
+                    var remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    var next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException ex) {
+            //中断只会发生在poll中，这一批还没有写入
+            running = false;
+            Thread.currentThread().interrupt();
+            batch.forEach(pending -> pending.future().completeExceptionally(
+                    new GroupCommitRejectedException("Group commit writer was interrupted, nothing was written")));
+        } catch (Throwable ex) {
+            //写线程无法继续：先关闭组提交（之后的请求直接写数据库），再通知这一批的调用方
+            running = false;
+            batch.forEach(pending -> pending.future().completeExceptionally(
+                    new GroupCommitOutcomeUnknownException("Group commit writer failed: " + ex)));
+        } finally {
+            running = false;
+            PendingWrite<?> pending;
+            while ((pending = queue.poll()) != null) {
+                pending.future().completeExceptionally(
+                        new GroupCommitRejectedException("Group commit writer stopped, nothing was written"));
+            }
+        }
+    }
+
+    private void flush(List<PendingWrite<?>> batch) {
+        var start = System.nanoTime();
+        try {
+            //用merge而不是persist：调用方的实体保持不变，失败时可以原样重试
+            var saved = transactionTemplate.execute(status ->
+                    batch.stream().map(pending -> (Object) entityManager.merge(pending.entity())).toList());
+            for (int i = 0; i < batch.size(); i++) {
+                complete(batch.get(i), saved.get(i));
+            }
+        } catch (RuntimeException ex) {
+            //整批失败时逐条单独提交，避免一条坏数据拖累整批
+            failedBatches.incrementAndGet();
+            for (var pending : batch) {
+                try {
+                    complete(pending, transactionTemplate.execute(status -> entityManager.merge(pending.entity())));
+                } catch (RuntimeException itemEx) {
+                    pending.future().completeExceptionally(itemEx);
+                }
+            }
+        }
+        record(batch.size(), System.nanoTime() - start);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void complete(PendingWrite<T> pending, Object saved) {
+        pending.future().complete((T) saved);
+    }
+
+    private void record(int size, long nanos) {
+        batches.incrementAndGet();
+        items.addAndGet(size);
+        totalBatchNanos.addAndGet(nanos);
+        maxBatchNanos.accumulateAndGet(nanos, Math::max);
+        lastBatchNanos = nanos;
+        lastBatchSize = size;
+    }
+
+    public Map<String, Object> getStats() {
+        var batchCount = batches.get();
+        return Map.of(
+                "enabled", running,
+                "queueDepth", queue == null ? 0 : queue.size(),
+                "batches", batchCount,
+                "items", items.get(),
+                "failedBatches", failedBatches.get(),
+                "rejected", rejected.get(),
+                "lastBatchSize", lastBatchSize,
+                "lastBatchLatencyMs", lastBatchNanos / 1_000_000.0,
+                "maxBatchLatencyMs", maxBatchNanos.get() / 1_000_000.0,
+                "avgBatchLatencyMs", batchCount == 0 ? 0.0 : totalBatchNanos.get() / 1_000_000.0 / batchCount
+        );
+    }
+
+    private record PendingWrite<T>(T entity, CompletableFuture<T> future) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.codewithmosh.store.services;
+
+public class InvalidRepriceException extends RuntimeException {
+    public InvalidRepriceException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,5 @@
+ALTER TABLE products
+    ADD version BIGINT DEFAULT 0 NOT NULL;
+
+ALTER TABLE users
+    ADD version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,143 @@
+package com.codewithmosh.store.controllers;
+
+import com.codewithmosh.store.entities.Category;
+import com.codewithmosh.store.entities.Product;
+import com.codewithmosh.store.repositories.CategoryRepository;
+import com.codewithmosh.store.repositories.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//需要本地MySQL，和StoreApplicationTests一样
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class CategoryBulkOperationsIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        category = categoryRepository.save(new Category("Bulk test " + UUID.randomUUID().toString().substring(0, 8)));
+        for (var price : List.of("10.00", "20.00", "30.00")) {
+            productRepository.save(Product.builder()
+                    .name("Product " + price)
+                    .description("Bulk test product")
+                    .price(new BigDecimal(price))
+                    .category(category)
+                    .build());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteByCategoryAndPriceRange(category.getId(), null, null);
+        categoryRepository.delete(category);
+    }
+
+    @Test
+    void percentageRepriceUpdatesEveryProductAndBumpsVersion() {
+        var response = reprice("PERCENTAGE", "10");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(3, response.getBody().get("updated"));
+        assertPrices("11.00", "22.00", "33.00");
+        assertVersions(1L);
+    }
+
+    @Test
+    void absoluteRepriceUpdatesEveryProductAndBumpsVersion() {
+        var response = reprice("ABSOLUTE", "5");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(3, response.getBody().get("updated"));
+        assertPrices("15.00", "25.00", "35.00");
+        assertVersions(1L);
+    }
+
+    @Test
+    void negativeAbsoluteRepriceIsRejectedWithoutChangingRows() {
+        var response = reprice("ABSOLUTE", "-15");
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertPrices("10.00", "20.00", "30.00");
+        assertVersions(0L);
+    }
+
+    @Test
+    void repriceBeyondColumnRangeIsRejected() {
+        var response = reprice("ABSOLUTE", "99999990");
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertPrices("10.00", "20.00", "30.00");
+    }
+
+    @Test
+    void bulkDeleteHonoursPriceBounds() {
+        assertEquals(1, deleteProducts("?minPrice=15&maxPrice=25").getBody().get("deleted"));
+        assertPrices("10.00", "30.00");
+
+        assertEquals(1, deleteProducts("?maxPrice=10").getBody().get("deleted"));
+        assertPrices("30.00");
+
+        assertEquals(1, deleteProducts("").getBody().get("deleted"));
+        assertPrices();
+    }
+
+    @Test
+    void invertedPriceRangeIsRejected() {
+        var response = deleteProducts("?minPrice=30&maxPrice=10");
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertPrices("10.00", "20.00", "30.00");
+    }
+
+    @SuppressWarnings("rawtypes")
+    private org.springframework.http.ResponseEntity<Map> reprice(String type, String amount) {
+        return restTemplate.postForEntity("/categories/{id}/reprice",
+                Map.of("type", type, "amount", new BigDecimal(amount)), Map.class, category.getId());
+    }
+
+    @SuppressWarnings("rawtypes")
+    private org.springframework.http.ResponseEntity<Map> deleteProducts(String query) {
+        return restTemplate.exchange("/categories/" + category.getId() + "/products" + query,
+                HttpMethod.DELETE, null, Map.class);
+    }
+
+    private List<Product> products() {
+        return productRepository.findByCategoryId(category.getId()).stream()
+                .sorted(Comparator.comparing(Product::getPrice))
+                .toList();
+    }
+
+    private void assertPrices(String... expected) {
+        var actual = products().stream().map(Product::getPrice).toList();
+        assertEquals(expected.length, actual.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(0, new BigDecimal(expected[i]).compareTo(actual.get(i)),
+                    "expected " + expected[i] + " but was " + actual.get(i));
+        }
+    }
+
+    private void assertVersions(long expected) {
+        products().forEach(product -> assertEquals(expected, product.getVersion()));
+    }
+}
@@ -0,0 +1,118 @@
+package com.codewithmosh.store.controllers;
+
+import com.codewithmosh.store.entities.Category;
+import com.codewithmosh.store.entities.Product;
+import com.codewithmosh.store.repositories.CategoryRepository;
+import com.codewithmosh.store.repositories.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//需要本地MySQL，和StoreApplicationTests一样
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ProductPatchIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Category category;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        //默认的HttpURLConnection不支持PATCH
+        restTemplate.getRestTemplate().setRequestFactory(new JdkClientHttpRequestFactory());
+        category = categoryRepository.save(new Category("Patch test " + UUID.randomUUID().toString().substring(0, 8)));
+        product = productRepository.save(Product.builder()
+                .name("Original")
+                .description("Patch test product")
+                .price(new BigDecimal("10.00"))
+                .category(category)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteByCategoryAndPriceRange(category.getId(), null, null);
+        categoryRepository.delete(category);
+    }
+
+    @Test
+    void patchWithCurrentVersionUpdatesOnlySuppliedFields() {
+        var response = patch(product.getId(), Map.of("price", new BigDecimal("12.50"), "version", 0));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().get("version"));
+
+        var stored = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals(0, new BigDecimal("12.50").compareTo(stored.getPrice()));
+        assertEquals("Original", stored.getName());
+        assertEquals(1L, stored.getVersion());
+    }
+
+    @Test
+    void patchWithStaleVersionReturnsConflict() {
+        assertEquals(HttpStatus.OK, patch(product.getId(), Map.of("name", "First", "version", 0)).getStatusCode());
+
+        var response = patch(product.getId(), Map.of("name", "Second", "version", 0));
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        assertEquals("First", productRepository.findById(product.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void patchMissingProductReturnsNotFound() {
+        var response = patch(Long.MAX_VALUE, Map.of("name", "Nobody", "version", 0));
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void patchWithOnlyVersionIsRejectedWithoutBumpingVersion() {
+        var response = patch(product.getId(), Map.of("version", 0));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(0L, productRepository.findById(product.getId()).orElseThrow().getVersion());
+    }
+
+    @Test
+    void blankNameAndNegativePriceAreRejected() {
+        assertEquals(HttpStatus.BAD_REQUEST,
+                patch(product.getId(), Map.of("name", "  ", "version", 0)).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST,
+                patch(product.getId(), Map.of("price", new BigDecimal("-1"), "version", 0)).getStatusCode());
+    }
+
+    @Test
+    void repositoryRejectsIdVersionAndUnknownAttributes() {
+        for (var attribute : new String[]{"id", "version", "nmae"}) {
+            var ex = assertThrows(RuntimeException.class,
+                    () -> productRepository.updateVersioned(product.getId(), 0L, Map.of(attribute, 1L)));
+            assertTrue(ex.getMessage().contains("Cannot patch attribute '" + attribute + "'"), ex.getMessage());
+        }
+        assertEquals(0L, productRepository.findById(product.getId()).orElseThrow().getVersion());
+    }
+
+    @SuppressWarnings("rawtypes")
+    private ResponseEntity<Map> patch(Long id, Map<String, Object> body) {
+        return restTemplate.exchange("/products/{id}", HttpMethod.PATCH, new HttpEntity<>(body), Map.class, id);
+    }
+}
@@ -0,0 +1,230 @@
+package com.codewithmosh.store.filters;
+
+import com.codewithmosh.store.config.CoalescingProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCoalescingFilterTest {
+
+    private CoalescingProperties properties;
+    private RequestCoalescingFilter filter;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CoalescingProperties();
+        properties.setKeyParams(List.of("categroyId"));
+        properties.setWaitTimeoutMs(5000);
+        filter = new RequestCoalescingFilter(properties);
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void followerReusesLeaderResponse() throws Exception {
+        var chain = new LatchedChain(200);
+        var leaderResponse = new MockHttpServletResponse();
+        var leader = startLeader(chain, request("1"), leaderResponse);
+
+        var followerResponse = new MockHttpServletResponse();
+        var follower = submit(request("1"), followerResponse, chain);
+        awaitJoined(1);
+        chain.release.countDown();
+        leader.get(5, TimeUnit.SECONDS);
+        follower.get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, chain.calls.get());
+        assertEquals(1L, filter.getStats().get("coalesced"));
+        assertEquals(0.5, filter.getStats().get("coalescingRatio"));
+        assertEquals(200, followerResponse.getStatus());
+        assertEquals("application/json", followerResponse.getContentType());
+        assertEquals("leader", followerResponse.getHeader("X-Trace"));
+        assertNull(followerResponse.getHeader("Set-Cookie"));
+        assertEquals(LatchedChain.BODY, followerResponse.getContentAsString());
+        assertEquals(LatchedChain.BODY, leaderResponse.getContentAsString());
+    }
+
+    @Test
+    void nonSuccessResponseIsNotShared() throws Exception {
+        var chain = new LatchedChain(404);
+        var leader = startLeader(chain, request("1"), new MockHttpServletResponse());
+
+        var followerResponse = new MockHttpServletResponse();
+        var follower = submit(request("1"), followerResponse, chain);
+        awaitJoined(1);
+        chain.release.countDown();
+        leader.get(5, TimeUnit.SECONDS);
+        follower.get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, chain.calls.get());
+        assertEquals(1L, filter.getStats().get("fallbacks"));
+        assertEquals(0L, filter.getStats().get("coalesced"));
+        assertEquals(0.0, filter.getStats().get("coalescingRatio"));
+    }
+
+    @Test
+    void followerFallsBackWhenLeaderFails() throws Exception {
+        var chain = new LatchedChain(200);
+        chain.failFirst = true;
+        var leader = startLeader(chain, request("1"), new MockHttpServletResponse());
+
+        var followerResponse = new MockHttpServletResponse();
+        var follower = submit(request("1"), followerResponse, chain);
+        awaitJoined(1);
+        chain.release.countDown();
+
+        assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        follower.get(5, TimeUnit.SECONDS);
+        assertEquals(2, chain.calls.get());
+        assertEquals(LatchedChain.BODY, followerResponse.getContentAsString());
+        assertEquals(0L, filter.getStats().get("coalesced"));
+    }
+
+    @Test
+    void followerFallsBackWhenLeaderTimesOut() throws Exception {
+        properties.setWaitTimeoutMs(50);
+        var chain = new LatchedChain(200);
+        var leader = startLeader(chain, request("1"), new MockHttpServletResponse());
+
+        var followerResponse = new MockHttpServletResponse();
+        //领头请求仍然阻塞，跟随者超时后自己执行
+        submit(request("1"), followerResponse, chain).get(5, TimeUnit.SECONDS);
+        assertEquals(LatchedChain.BODY, followerResponse.getContentAsString());
+        assertEquals(1L, filter.getStats().get("fallbacks"));
+        assertEquals(0.0, filter.getStats().get("coalescingRatio"));
+
+        chain.release.countDown();
+        leader.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void keyUsesOnlyConfiguredParams() throws Exception {
+        var chain = new LatchedChain(200);
+        var leader = startLeader(chain, request("1"), new MockHttpServletResponse());
+
+        //categroyId不同：不合并，直接执行
+        submit(request("2"), new MockHttpServletResponse(), chain).get(5, TimeUnit.SECONDS);
+        assertEquals(0L, filter.getStats().get("coalesced"));
+
+        //不在keyParams中的参数不影响合并
+        var withExtraParam = request("1");
+        withExtraParam.setParameter("sort", "price");
+        var follower = submit(withExtraParam, new MockHttpServletResponse(), chain);
+        awaitJoined(1);
+
+        chain.release.countDown();
+        leader.get(5, TimeUnit.SECONDS);
+        follower.get(5, TimeUnit.SECONDS);
+        assertEquals(2, chain.calls.get());
+    }
+
+    @Test
+    void keyIncludesConfiguredHeaders() throws Exception {
+        properties.setKeyHeaders(List.of("Accept-Language"));
+        var chain = new LatchedChain(200);
+        var english = request("1");
+        english.addHeader("Accept-Language", "en");
+        var leader = startLeader(chain, english, new MockHttpServletResponse());
+
+        var french = request("1");
+        french.addHeader("Accept-Language", "fr");
+        submit(french, new MockHttpServletResponse(), chain).get(5, TimeUnit.SECONDS);
+
+        chain.release.countDown();
+        leader.get(5, TimeUnit.SECONDS);
+        assertEquals(2, chain.calls.get());
+        assertEquals(0L, filter.getStats().get("coalesced"));
+    }
+
+    private static MockHttpServletRequest request(String categoryId) {
+        var request = new MockHttpServletRequest("GET", "/products");
+        request.setParameter("categroyId", categoryId);
+        return request;
+    }
+
+    private Future<?> startLeader(LatchedChain chain, MockHttpServletRequest request,
+                                  MockHttpServletResponse response) throws InterruptedException {
+        var leader = submit(request, response, chain);
+        assertTrue(chain.entered.await(5, TimeUnit.SECONDS));
+        return leader;
+    }
+
+    private Future<?> submit(MockHttpServletRequest request, MockHttpServletResponse response, FilterChain chain) {
+        return executor.submit(() -> {
+            filter.doFilter(request, response, chain);
+            return null;
+        });
+    }
+
+    //等跟随者加入进行中的请求（此时还不知道能否复用）
+    private void awaitJoined(long expected) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!Long.valueOf(expected).equals(filter.getStats().get("joined"))) {
+            assertTrue(System.nanoTime() < deadline, "follower never joined the in-flight request");
+            Thread.sleep(5);
+        }
+    }
+
+    //第一次调用阻塞到release，之后的调用直接返回
+    private static class LatchedChain implements FilterChain {
+        static final String BODY = "[{\"id\":1}]";
+
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        final int status;
+        volatile boolean failFirst;
+
+        LatchedChain(int status) {
+            this.status = status;
+        }
+
+        @Override
+        public void doFilter(ServletRequest request, ServletResponse response) {
+            if (calls.incrementAndGet() == 1) {
+                entered.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                if (failFirst) {
+                    throw new IllegalStateException("leader failed");
+                }
+            }
+            try {
+                var http = (HttpServletResponse) response;
+                http.setStatus(status);
+                http.setContentType("application/json");
+                http.setHeader("X-Trace", "leader");
+                http.addHeader("Set-Cookie", "session=leader");
+                http.getOutputStream().write(BODY.getBytes(StandardCharsets.UTF_8));
+            } catch (java.io.IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+}
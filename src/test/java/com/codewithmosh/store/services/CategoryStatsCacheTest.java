@@ -0,0 +1,77 @@
+package com.codewithmosh.store.services;
+
+import com.codewithmosh.store.dtos.CategoryStatsDto;
+import com.codewithmosh.store.repositories.CategoryRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CategoryStatsCacheTest {
+
+    private static List<CategoryStatsDto> stats(long count) {
+        return List.of(new CategoryStatsDto((byte) 1, "Fruits", count, BigDecimal.ONE, BigDecimal.TEN));
+    }
+
+    @Test
+    void reloadsOnlyAfterInvalidate() {
+        var repository = mock(CategoryRepository.class);
+        when(repository.findAllWithStats()).thenReturn(stats(1), stats(2));
+        var cache = new CategoryStatsCache(repository);
+
+        assertEquals(1L, cache.get().get(0).getProductCount());
+        assertEquals(1L, cache.get().get(0).getProductCount());
+        verify(repository, times(1)).findAllWithStats();
+
+        cache.invalidate();
+        assertEquals(2L, cache.get().get(0).getProductCount());
+        verify(repository, times(2)).findAllWithStats();
+    }
+
+    @Test
+    void concurrentReadersShareOneRefresh() throws Exception {
+        var repository = mock(CategoryRepository.class);
+        var refreshing = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(repository.findAllWithStats())
+                .thenReturn(stats(1))
+                .thenAnswer(invocation -> {
+                    refreshing.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return stats(2);
+                });
+        var cache = new CategoryStatsCache(repository);
+        cache.get();
+        cache.invalidate();
+
+        var executor = Executors.newCachedThreadPool();
+        try {
+            var refresher = executor.submit(cache::get);
+            assertTrue(refreshing.await(5, TimeUnit.SECONDS));
+
+            //刷新进行中：其他读者直接拿到旧快照，不再查询
+            var readers = new ArrayList<Future<List<CategoryStatsDto>>>();
+            for (int i = 0; i < 8; i++) {
+                readers.add(executor.submit(cache::get));
+            }
+            for (var reader : readers) {
+                assertEquals(1L, reader.get(5, TimeUnit.SECONDS).get(0).getProductCount());
+            }
+
+            release.countDown();
+            assertEquals(2L, refresher.get(5, TimeUnit.SECONDS).get(0).getProductCount());
+            assertEquals(2L, cache.get().get(0).getProductCount());
+            verify(repository, times(2)).findAllWithStats();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
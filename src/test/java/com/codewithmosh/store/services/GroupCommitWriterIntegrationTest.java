@@ -0,0 +1,63 @@
+package com.codewithmosh.store.services;
+
+import com.codewithmosh.store.dtos.RegisterUserRequest;
+import com.codewithmosh.store.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//并发请求数是连接池大小的4倍：等待提交的请求不能占着连接，否则写线程拿不到连接，所有请求超时
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "store.group-commit.enabled=true",
+                "store.group-commit.response-timeout-ms=5000",
+                "spring.datasource.hikari.maximum-pool-size=4"
+        })
+class GroupCommitWriterIntegrationTest {
+    private static final int CONCURRENT_REQUESTS = 16;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void concurrentInsertsBeyondPoolSizeAllCommit() throws Exception {
+        var runId = UUID.randomUUID().toString().substring(0, 8);
+        var executor = Executors.newFixedThreadPool(CONCURRENT_REQUESTS);
+        var ids = new ArrayList<Long>();
+        try {
+            var responses = new ArrayList<Future<ResponseEntity<Map>>>();
+            for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+                var request = new RegisterUserRequest();
+                request.setName("Group commit " + i);
+                request.setEmail("group-commit-" + runId + "-" + i + "@example.com");
+                request.setPassword("secret123");
+                responses.add(executor.submit(() -> restTemplate.postForEntity("/users", request, Map.class)));
+            }
+            for (var response : responses) {
+                var entity = response.get(30, TimeUnit.SECONDS);
+                assertEquals(HttpStatus.CREATED, entity.getStatusCode());
+                var id = (Number) entity.getBody().get("id");
+                assertNotNull(id);
+                ids.add(id.longValue());
+            }
+        } finally {
+            executor.shutdownNow();
+            userRepository.deleteAllById(ids);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.codewithmosh.store.services;
+
+import com.codewithmosh.store.config.GroupCommitProperties;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+//不需要数据库：TransactionTemplate直接执行回调，EntityManager用Mockito模拟
+class GroupCommitWriterTest {
+
+    private GroupCommitProperties properties;
+    private StubTransactionTemplate transactionTemplate;
+    private EntityManager entityManager;
+    private GroupCommitWriter writer;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        properties = new GroupCommitProperties();
+        properties.setEnabled(true);
+        properties.setMaxDelayMs(10_000);
+        properties.setResponseTimeoutMs(5000);
+        transactionTemplate = new StubTransactionTemplate();
+        entityManager = mock(EntityManager.class);
+        when(entityManager.merge(any())).thenAnswer(invocation -> {
+            Object entity = invocation.getArgument(0);
+            if ("bad".equals(entity)) {
+                throw new IllegalArgumentException("bad row");
+            }
+            return entity;
+        });
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        transactionTemplate.gate.countDown();
+        if (writer != null) {
+            writer.stop();
+        }
+        executor.shutdownNow();
+    }
+
+    private void startWriter() {
+        writer = new GroupCommitWriter(properties, transactionTemplate,
+                new MockEnvironment().withProperty("spring.jpa.open-in-view", "false"));
+        ReflectionTestUtils.setField(writer, "entityManager", entityManager);
+        writer.start();
+    }
+
+    private Future<String> submit(String entity) {
+        return executor.submit(() -> writer.write(entity));
+    }
+
+    @Test
+    void refusesToStartWithOpenInView() {
+        writer = new GroupCommitWriter(properties, transactionTemplate, new MockEnvironment());
+        assertThrows(IllegalStateException.class, writer::start);
+        assertFalse(writer.isEnabled());
+    }
+
+    @Test
+    void flushesWhenBatchIsFull() throws Exception {
+        properties.setBatchSize(3);
+        startWriter();
+
+        var writes = new ArrayList<Future<String>>();
+        for (var entity : new String[]{"a", "b", "c"}) {
+            writes.add(submit(entity));
+        }
+        //maxDelay是10秒，能在这之前返回说明是凑满batchSize提交的
+        assertEquals("a", writes.get(0).get(5, TimeUnit.SECONDS));
+        assertEquals("b", writes.get(1).get(5, TimeUnit.SECONDS));
+        assertEquals("c", writes.get(2).get(5, TimeUnit.SECONDS));
+        assertEquals(1, transactionTemplate.transactions.get());
+        //统计在唤醒调用方之后记录，等一下
+        awaitTrue(() -> Integer.valueOf(3).equals(writer.getStats().get("lastBatchSize")));
+    }
+
+    @Test
+    void flushesAfterMaxDelay() throws Exception {
+        properties.setBatchSize(100);
+        properties.setMaxDelayMs(20);
+        startWriter();
+
+        assertEquals("a", submit("a").get(5, TimeUnit.SECONDS));
+        assertEquals(1, transactionTemplate.transactions.get());
+        awaitTrue(() -> Integer.valueOf(1).equals(writer.getStats().get("lastBatchSize")));
+    }
+
+    @Test
+    void retriesItemsOneByOneWhenBatchFails() throws Exception {
+        properties.setBatchSize(2);
+        startWriter();
+
+        var good = submit("good");
+        var bad = submit("bad");
+
+        assertEquals("good", good.get(5, TimeUnit.SECONDS));
+        var ex = assertThrows(ExecutionException.class, () -> bad.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, ex.getCause());
+        assertEquals(1L, writer.getStats().get("failedBatches"));
+        assertEquals(3, transactionTemplate.transactions.get()); //1次整批 + 2次逐条
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() throws Exception {
+        properties.setBatchSize(1);
+        properties.setQueueCapacity(1);
+        properties.setOfferTimeoutMs(10);
+        transactionTemplate.blocking = true;
+        startWriter();
+
+        var inFlight = submit("a");
+        awaitTrue(() -> transactionTemplate.transactions.get() == 1);
+        var queued = submit("b");
+        awaitTrue(() -> Integer.valueOf(1).equals(writer.getStats().get("queueDepth")));
+
+        assertThrows(GroupCommitRejectedException.class, () -> writer.write("c"));
+        assertEquals(1L, writer.getStats().get("rejected"));
+
+        transactionTemplate.gate.countDown();
+        assertEquals("a", inFlight.get(5, TimeUnit.SECONDS));
+        assertEquals("b", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void timeoutDistinguishesQueuedFromInFlightWrites() throws Exception {
+        properties.setBatchSize(1);
+        properties.setResponseTimeoutMs(100);
+        transactionTemplate.blocking = true;
+        startWriter();
+
+        var inFlight = submit("a");
+        awaitTrue(() -> transactionTemplate.transactions.get() == 1);
+        var queued = submit("b");
+
+        //已被写线程取走：结果未知，不能让客户端重试
+        var inFlightEx = assertThrows(ExecutionException.class, () -> inFlight.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(GroupCommitOutcomeUnknownException.class, inFlightEx.getCause());
+        //还在队列中：移出队列，保证不会写入
+        var queuedEx = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(GroupCommitRejectedException.class, queuedEx.getCause());
+
+        transactionTemplate.gate.countDown();
+        writer.stop();
+        verify(entityManager).merge("a");
+        verify(entityManager, never()).merge("b");
+    }
+
+    @Test
+    void drainsQueueOnShutdown() throws Exception {
+        properties.setBatchSize(1);
+        transactionTemplate.blocking = true;
+        startWriter();
+
+        var first = submit("a");
+        awaitTrue(() -> transactionTemplate.transactions.get() == 1);
+        var second = submit("b");
+        var third = submit("c");
+        awaitTrue(() -> Integer.valueOf(2).equals(writer.getStats().get("queueDepth")));
+
+        var stopped = executor.submit(() -> {
+            writer.stop();
+            return null;
+        });
+        awaitTrue(() -> !writer.isEnabled());
+        transactionTemplate.gate.countDown();
+
+        stopped.get(5, TimeUnit.SECONDS);
+        assertEquals("a", first.get(5, TimeUnit.SECONDS));
+        assertEquals("b", second.get(5, TimeUnit.SECONDS));
+        assertEquals("c", third.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void writerErrorDisablesGroupCommit() {
+        when(entityManager.merge("fatal")).thenThrow(new Error("writer died"));
+        properties.setBatchSize(1);
+        startWriter();
+
+        assertThrows(GroupCommitOutcomeUnknownException.class, () -> writer.write("fatal"));
+        assertFalse(writer.isEnabled());
+        assertThrows(GroupCommitRejectedException.class, () -> writer.write("a"));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not reached in time");
+            Thread.sleep(5);
+        }
+    }
+
+    //直接执行回调；blocking为true时，每个事务都等到gate打开才执行
+    private static class StubTransactionTemplate extends TransactionTemplate {
+        final AtomicInteger transactions = new AtomicInteger();
+        final CountDownLatch gate = new CountDownLatch(1);
+        volatile boolean blocking;
+
+        @Override
+        public <T> T execute(TransactionCallback<T> action) {
+            transactions.incrementAndGet();
+            if (blocking) {
+                try {
+                    gate.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return action.doInTransaction(null);
+        }
+    }
+}